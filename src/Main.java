@@ -1,62 +1,89 @@
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 public class Main {
+    private static final int INSECT_TYPE_COUNT = InsectType.values().length;
     public static void main(String[] args) {
         try {
-            BufferedReader reader = new BufferedReader(new FileReader("input.txt"));
-            BufferedWriter writer = new BufferedWriter(new FileWriter("output.txt"));
-            int boardSize = Integer.parseInt(reader.readLine().trim());
-            int numInsects = Integer.parseInt(reader.readLine().trim());
-            int numFoodPoints = Integer.parseInt(reader.readLine().trim());
-            if (numInsects < 1 || numInsects > 16) {
-                throw new InvalidNumberOfInsectsException();
+            Board board;
+            try (BufferedReader reader = new BufferedReader(new FileReader("input.txt"))) {
+                board = loadBoard(reader);
             }
-            if (numFoodPoints < 1 || numFoodPoints > 200) {
-                throw new InvalidNumberOfFoodPointsException();
+            InsectResultEncoder encoder = new InsectResultEncoder();
+            processInsects(board, encoder);
+            try (FileChannel output = FileChannel.open(Paths.get("output.txt"), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                encoder.writeTo(output);
             }
-            if (boardSize < 4 || boardSize > 1000) {
-                throw new InvalidBoardSizeException();
+        } catch (IOException | NumberFormatException | ValidationException e) {
+            writeToFile("output.txt", e.getMessage());
+        }
+    }
+    static Board loadBoard(BufferedReader reader) throws IOException, ValidationException {
+        int boardSize = Integer.parseInt(reader.readLine().trim());
+        int numInsects = Integer.parseInt(reader.readLine().trim());
+        int numFoodPoints = Integer.parseInt(reader.readLine().trim());
+        if (numInsects < 1 || numInsects > 16) {
+            throw InvalidNumberOfInsectsException.INSTANCE;
+        }
+        if (numFoodPoints < 1 || numFoodPoints > 200) {
+            throw InvalidNumberOfFoodPointsException.INSTANCE;
+        }
+        if (boardSize < 4 || boardSize > 1000) {
+            throw InvalidBoardSizeException.INSTANCE;
+        }
+        Board board = new Board(boardSize);
+        int createdInsects = 0;
+        Set<String> otherSpellingInsects = null;
+        for (int i = 0; i < numInsects; i++) {
+            String[] insectData = reader.readLine().split(" ");
+            String color = insectData[0];
+            String type = insectData[1];
+            int x = Integer.parseInt(insectData[2]);
+            int y = Integer.parseInt(insectData[3]);
+            if (x < 1 || x > boardSize || y < 1 || y > boardSize) {
+                throw InvalidEntityPositionException.INSTANCE;
             }
-            Board board = new Board(boardSize);
-            Set<String> createdInsects = new HashSet<>();
-            for (int i = 0; i < numInsects; i++) {
-                String[] insectData = reader.readLine().split(" ");
-                String color = insectData[0];
-                String type = insectData[1];
-                int x = Integer.parseInt(insectData[2]);
-                int y = Integer.parseInt(insectData[3]);
-                if (x < 1 || x > boardSize || y < 1 || y > boardSize) {
-                    throw new InvalidEntityPositionException();
+            InsectColor insectColor = InsectColor.toColor(color);
+            InsectType insectType = InsectType.toType(type);
+            if (color.equals(insectColor.getLabel())) {
+                int insectBit = 1 << (insectColor.ordinal() * INSECT_TYPE_COUNT + insectType.ordinal());
+                if ((createdInsects & insectBit) != 0) {
+                    throw DuplicateInsectException.INSTANCE;
                 }
-                Insect insect = createInsect(color, type, new EntityPosition(x, y), createdInsects);
-                board.addEntity(insect);
-            }
-            for (int i = 0; i < numFoodPoints; i++) {
-                String[] foodData = reader.readLine().split(" ");
-                int value = Integer.parseInt(foodData[0]);
-                int x = Integer.parseInt(foodData[1]);
-                int y = Integer.parseInt(foodData[2]);
-                if (x < 1 || x > boardSize || y < 1 || y > boardSize) {
-                    throw new InvalidEntityPositionException();
+                createdInsects |= insectBit;
+            } else {
+                // The baseline keyed insects on the raw color string, so "red Ant" and "Red Ant" are different insects.
+                if (otherSpellingInsects == null) {
+                    otherSpellingInsects = new HashSet<>();
+                }
+                if (!otherSpellingInsects.add(color + "_" + type)) {
+                    throw DuplicateInsectException.INSTANCE;
                 }
-                FoodPoint foodPoint = new FoodPoint(new EntityPosition(x, y), value, true);
-                board.addEntity(foodPoint);
             }
-            reader.close();
-            StringWriter resultWriter = new StringWriter();
-            processInsects(board, resultWriter);
-            writer.write(resultWriter.toString());
-            writer.newLine();
-            writer.close();
-        } catch (IOException | NumberFormatException | InvalidInsectColorException | InvalidInsectTypeException |
-                 TwoEntitiesOnSamePositionException | InvalidBoardSizeException | InvalidNumberOfFoodPointsException |
-                 InvalidNumberOfInsectsException | InvalidEntityPositionException | DuplicateInsectException e) {
-            writeToFile("output.txt", e.getMessage());
+            Insect insect = insectType.create(new EntityPosition(x, y), insectColor);
+            board.addEntity(insect);
+        }
+        for (int i = 0; i < numFoodPoints; i++) {
+            String[] foodData = reader.readLine().split(" ");
+            int value = Integer.parseInt(foodData[0]);
+            int x = Integer.parseInt(foodData[1]);
+            int y = Integer.parseInt(foodData[2]);
+            if (x < 1 || x > boardSize || y < 1 || y > boardSize) {
+                throw InvalidEntityPositionException.INSTANCE;
+            }
+            FoodPoint foodPoint = new FoodPoint(new EntityPosition(x, y), value, true);
+            board.addEntity(foodPoint);
         }
+        return board;
     }
     private static void writeToFile(String filename, String Message) {
         try {
@@ -69,11 +96,11 @@ public class Main {
         }
     }
 
-    private static void processInsects(Board board, Writer writer) throws IOException {
+    private static void processInsects(Board board, InsectResultEncoder encoder) {
+        encoder.reset();
         List<Insect> insects = new ArrayList<>();
 
-        for (Map.Entry<String, BoardEntity> entry : board.getBoardData().entrySet()) {
-            BoardEntity entity = entry.getValue();
+        for (BoardEntity entity : board.getEntities()) {
             if (entity instanceof Insect) {
                 insects.add((Insect) entity);
             }
@@ -81,50 +108,32 @@ public class Main {
 
         for (int i = 0; i < insects.size(); i++) {
             Insect insect = insects.get(i);
-            Direction bestDirection = insect.getBestDirection(board.getBoardData(), board.getSize());
-            int foodEaten = insect.travelDirection(bestDirection, board.getBoardData(), board.getSize());
-            String colorString = insect.color.name().toLowerCase();
-            colorString = Character.toUpperCase(colorString.charAt(0)) + colorString.substring(1);
-            String directionString = bestDirection.getTextRepresentation();
-            directionString = Character.toUpperCase(directionString.charAt(0)) + directionString.substring(1);
-            writer.write(colorString + " " + insect.getClass().getSimpleName() + " " + directionString + " " + foodEaten);
-            if (i < insects.size() - 1) {
-                writer.write("\n");
-            }
-        }
-    }
-
-    private static Insect createInsect(String color, String type, EntityPosition position, Set<String> createdInsects)
-            throws InvalidInsectColorException, InvalidInsectTypeException, DuplicateInsectException {
-        InsectColor insectColor = InsectColor.toColor(color);
-        String insectKey = color + "_" + type;
-        if (createdInsects.contains(insectKey)) {
-            throw new DuplicateInsectException();
-        }
-        createdInsects.add(insectKey);
-        switch (type) {
-            case "Grasshopper":
-                return new Grasshopper(position, insectColor);
-            case "Butterfly":
-                return new Butterfly(position, insectColor);
-            case "Ant":
-                return new Ant(position, insectColor);
-            case "Spider":
-                return new Spider(position, insectColor);
-            default:
-                throw new InvalidInsectTypeException();
+            Direction bestDirection = insect.getBestDirection(board);
+            int foodEaten = insect.travelDirection(bestDirection, board);
+            encoder.append(insect, bestDirection, foodEaten);
         }
     }
 }
 enum Direction {
-    N("North"), E("East"), S("South"), W("West"), NE("North-East"), SE("South-East"), SW("South-West"), NW("North-West");
+    N("North", -1, 0), E("East", 0, 1), S("South", 1, 0), W("West", 0, -1),
+    NE("North-East", -1, 1), SE("South-East", 1, 1), SW("South-West", 1, -1), NW("North-West", -1, -1);
     private String textRepresentation;
-    Direction(String text) {
+    private int deltaX;
+    private int deltaY;
+    Direction(String text, int deltaX, int deltaY) {
         this.textRepresentation = text;
+        this.deltaX = deltaX;
+        this.deltaY = deltaY;
     }
     public String getTextRepresentation() {
         return textRepresentation;
     }
+    public int getDeltaX() {
+        return deltaX;
+    }
+    public int getDeltaY() {
+        return deltaY;
+    }
 }
 class EntityPosition {
     private int x;
@@ -136,16 +145,68 @@ class EntityPosition {
     public int[] getCoordinates() {
         return new int[]{x, y};
     }
+    public int getX() {
+        return x;
+    }
+    public int getY() {
+        return y;
+    }
 }
 enum InsectColor {
-    RED, GREEN, BLUE, YELLOW;
+    RED("Red"), GREEN("Green"), BLUE("Blue"), YELLOW("Yellow");
+    private String label;
+    InsectColor(String label) {
+        this.label = label;
+    }
+    public String getLabel() {
+        return label;
+    }
     public static InsectColor toColor(String s) throws InvalidInsectColorException {
         for (InsectColor color : InsectColor.values()) {
             if (color.name().equalsIgnoreCase(s)) {
                 return color;
             }
         }
-        throw new InvalidInsectColorException();
+        throw InvalidInsectColorException.INSTANCE;
+    }
+}
+enum InsectType {
+    GRASSHOPPER("Grasshopper") {
+        @Override
+        public Insect create(EntityPosition position, InsectColor color) {
+            return new Grasshopper(position, color);
+        }
+    },
+    BUTTERFLY("Butterfly") {
+        @Override
+        public Insect create(EntityPosition position, InsectColor color) {
+            return new Butterfly(position, color);
+        }
+    },
+    ANT("Ant") {
+        @Override
+        public Insect create(EntityPosition position, InsectColor color) {
+            return new Ant(position, color);
+        }
+    },
+    SPIDER("Spider") {
+        @Override
+        public Insect create(EntityPosition position, InsectColor color) {
+            return new Spider(position, color);
+        }
+    };
+    private String label;
+    InsectType(String label) {
+        this.label = label;
+    }
+    public abstract Insect create(EntityPosition position, InsectColor color);
+    public static InsectType toType(String s) throws InvalidInsectTypeException {
+        for (InsectType type : InsectType.values()) {
+            if (type.label.equals(s)) {
+                return type;
+            }
+        }
+        throw InvalidInsectTypeException.INSTANCE;
     }
 }
 class FoodPoint extends BoardEntity {
@@ -169,27 +230,85 @@ class FoodPoint extends BoardEntity {
     }
 }
 class Board {
-    private Map<String, BoardEntity> boardData;
+    private List<BoardEntity> entities;
+    private PositionMap entitiesByPosition;
     private int size;
+    private long[] rowFood;
+    private long[] columnFood;
+    private long[] diagonalFood;
+    private long[] antiDiagonalFood;
+    private long totalFood;
+    private boolean foodBoundsExact = true;
     public Board(int boardSize) {
         this.size = boardSize;
-        this.boardData = new LinkedHashMap<>();
+        this.entities = new ArrayList<>();
+        this.entitiesByPosition = new PositionMap();
+        this.rowFood = new long[boardSize + 1];
+        this.columnFood = new long[boardSize + 1];
+        this.diagonalFood = new long[2 * boardSize + 1];
+        this.antiDiagonalFood = new long[2 * boardSize + 1];
     }
     public void addEntity(BoardEntity entity) throws TwoEntitiesOnSamePositionException {
         EntityPosition position = entity.entityPosition;
-        int[] coordinates = position.getCoordinates();
-        String key = Arrays.toString(coordinates);
 
-        if (boardData.containsKey(key)) {
-            throw new TwoEntitiesOnSamePositionException();
+        if (!entitiesByPosition.putIfAbsent(position.getX(), position.getY(), entity)) {
+            throw TwoEntitiesOnSamePositionException.INSTANCE;
         }
 
-        boardData.put(key, entity);
+        entities.add(entity);
+        if (entity instanceof FoodPoint) {
+            FoodPoint foodPoint = (FoodPoint) entity;
+            if (foodPoint.isCanEat()) {
+                if (foodPoint.getValue() < 0) {
+                    foodBoundsExact = false;
+                }
+                updateFoodTotals(foodPoint, 1);
+            }
+        }
+    }
+    public void consume(FoodPoint foodPoint) {
+        if (foodPoint.isCanEat()) {
+            foodPoint.setCanEat(false);
+            updateFoodTotals(foodPoint, -1);
+        }
+    }
+    private void updateFoodTotals(FoodPoint foodPoint, int sign) {
+        int x = foodPoint.entityPosition.getX();
+        int y = foodPoint.entityPosition.getY();
+        long value = (long) sign * foodPoint.getValue();
+        rowFood[x] += value;
+        columnFood[y] += value;
+        diagonalFood[x - y + size] += value;
+        antiDiagonalFood[x + y] += value;
+        totalFood += value;
+        if (totalFood > Integer.MAX_VALUE) {
+            foodBoundsExact = false;
+        }
+    }
+    // Edible food left on the whole line through (x, y); unbounded once food can be negative or overflow.
+    public long getFoodUpperBound(int x, int y, Direction dir) {
+        if (!foodBoundsExact) {
+            return Long.MAX_VALUE;
+        }
+        switch (dir) {
+            case N:
+            case S:
+                return columnFood[y];
+            case E:
+            case W:
+                return rowFood[x];
+            case NE:
+            case SW:
+                return antiDiagonalFood[x + y];
+            default:
+                return diagonalFood[x - y + size];
+        }
     }
     public BoardEntity getEntity(EntityPosition position) {
-        int[] coordinates = position.getCoordinates();
-        String key = Arrays.toString(coordinates);
-        return boardData.get(key);
+        return entitiesByPosition.get(position.getX(), position.getY());
+    }
+    public BoardEntity getEntity(int x, int y) {
+        return entitiesByPosition.get(x, y);
     }
     public Direction getDirection(Insect insect) {
         return Direction.N;
@@ -197,13 +316,171 @@ class Board {
     public int getDirectionSum(Insect insect) {
         return 0;
     }
-    public Map<String, BoardEntity> getBoardData() {
-        return boardData;
+    public List<BoardEntity> getEntities() {
+        return entities;
     }
     public int getSize() {
         return size;
     }
 }
+class PositionMap {
+    private static final long EMPTY = Long.MIN_VALUE;
+    private long[] keys = newTable(64);
+    private BoardEntity[] values = new BoardEntity[64];
+    private int count;
+
+    public boolean putIfAbsent(int x, int y, BoardEntity value) {
+        long key = toKey(x, y);
+        if ((count + 1) * 2 > keys.length) {
+            rehash();
+        }
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        count++;
+        return true;
+    }
+    public BoardEntity get(int x, int y) {
+        long key = toKey(x, y);
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+    private void rehash() {
+        long[] oldKeys = keys;
+        BoardEntity[] oldValues = values;
+        keys = newTable(oldKeys.length * 2);
+        values = new BoardEntity[keys.length];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+    private static long toKey(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+    private static long[] newTable(int capacity) {
+        long[] table = new long[capacity];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+}
+class InsectResultEncoder {
+    private static final byte[][] COLOR_LABELS = new byte[InsectColor.values().length][];
+    private static final byte[][] DIRECTION_LABELS = new byte[Direction.values().length][];
+    private static final byte[] GRASSHOPPER_LABEL = toBytes("Grasshopper ");
+    private static final byte[] BUTTERFLY_LABEL = toBytes("Butterfly ");
+    private static final byte[] ANT_LABEL = toBytes("Ant ");
+    private static final byte[] SPIDER_LABEL = toBytes("Spider ");
+    private static final byte[] LINE_SEPARATOR = toBytes(System.lineSeparator());
+    private static final byte[] MIN_INT_DIGITS = toBytes(String.valueOf(Integer.MIN_VALUE));
+    static {
+        for (InsectColor color : InsectColor.values()) {
+            COLOR_LABELS[color.ordinal()] = toBytes(color.getLabel() + " ");
+        }
+        for (Direction direction : Direction.values()) {
+            DIRECTION_LABELS[direction.ordinal()] = toBytes(direction.getTextRepresentation() + " ");
+        }
+    }
+    private byte[] buffer = new byte[512];
+    private int length;
+    private boolean empty = true;
+
+    public void reset() {
+        length = 0;
+        empty = true;
+    }
+    public void append(Insect insect, Direction direction, int foodEaten) {
+        if (!empty) {
+            put((byte) '\n');
+        }
+        put(COLOR_LABELS[insect.color.ordinal()]);
+        put(getTypeLabel(insect));
+        put(DIRECTION_LABELS[direction.ordinal()]);
+        putInt(foodEaten);
+        empty = false;
+    }
+    public void writeTo(FileChannel channel) throws IOException {
+        ByteBuffer[] bytes = {ByteBuffer.wrap(buffer, 0, length), ByteBuffer.wrap(LINE_SEPARATOR)};
+        while (bytes[1].hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+    private static byte[] getTypeLabel(Insect insect) {
+        if (insect instanceof Grasshopper) {
+            return GRASSHOPPER_LABEL;
+        } else if (insect instanceof Butterfly) {
+            return BUTTERFLY_LABEL;
+        } else if (insect instanceof Ant) {
+            return ANT_LABEL;
+        } else if (insect instanceof Spider) {
+            return SPIDER_LABEL;
+        }
+        return toBytes(insect.getClass().getSimpleName() + " ");
+    }
+    private void putInt(int value) {
+        if (value == Integer.MIN_VALUE) {
+            put(MIN_INT_DIGITS);
+            return;
+        }
+        ensureCapacity(11);
+        if (value < 0) {
+            buffer[length++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (int rest = value / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        int position = length + digits;
+        do {
+            buffer[--position] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        length += digits;
+    }
+    private void put(byte value) {
+        ensureCapacity(1);
+        buffer[length++] = value;
+    }
+    private void put(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+    private static byte[] toBytes(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
 abstract class BoardEntity {
     protected EntityPosition entityPosition;
     public BoardEntity(EntityPosition entityPosition) {
@@ -218,530 +495,268 @@ abstract class Insect extends BoardEntity {
         this.color = color;
         this.alive = alive;
     }
-    public abstract Direction getBestDirection(Map<String, BoardEntity> boardData, int boardSize);
-    public abstract int travelDirection(Direction dir, Map<String, BoardEntity> boardData, int boardSize);
-
-    public boolean getAlive() {
-        return alive;
+    protected abstract Direction[] getCandidateDirections();
+    protected abstract Direction getDefaultDirection();
+    protected int getStep() {
+        return 1;
     }
-
-    public void setAlive(boolean alive) {
-        this.alive = alive;
+    protected boolean isBlockedBy(Insect insect) {
+        return insect.color != color && insect.getAlive();
     }
-}
-class Grasshopper extends Insect {
-    public Grasshopper(EntityPosition entityPosition, InsectColor color) {
-        super(entityPosition, color, true);
-    }
-    @Override
-    public Direction getBestDirection(Map<String, BoardEntity> boardData, int boardSize) {
-        int[] currentPosition = entityPosition.getCoordinates();
-        int x = currentPosition[0];
-        int y = currentPosition[1];
+
+    // Scans candidates from the most remaining food on their line down; stops once none left can beat the best.
+    public Direction getBestDirection(Board board) {
+        int x = entityPosition.getX();
+        int y = entityPosition.getY();
+        Direction[] candidates = getCandidateDirections();
         Direction bestDir = null;
+        int bestIndex = candidates.length;
         int maxFood = 0;
-        for (Direction dir : new Direction[]{Direction.N, Direction.E, Direction.S, Direction.W}) {
-            int newX = x;
-            int newY = y;
-            int spreadX = 0;
-            int spreadY = 0;
-            switch (dir) {
-                case W:
-                    spreadY = -2;
-                    break;
-                case S:
-                    spreadX = 2;
-                    break;
-                case E:
-                    spreadY = 2;
-                    break;
-                case N:
-                    spreadX = -2;
-                    break;
-            }
-            int currentFoodValue = 0;
-            while ((newX >= 1 && newX <= boardSize) && (newY >= 1 && newY <= boardSize)) {
-                newX += spreadX;
-                newY += spreadY;
-                EntityPosition newPosition = new EntityPosition(newX, newY);
-                int[] newCoordinates = newPosition.getCoordinates();
-                String key = Arrays.toString(newCoordinates);
-                BoardEntity entityAtNewPosition = boardData.get(key);
-
-                if (entityAtNewPosition instanceof FoodPoint && ((FoodPoint) entityAtNewPosition).isCanEat()) {
-                    int foodValue = ((FoodPoint) entityAtNewPosition).getValue();
-                    currentFoodValue += foodValue;
+        int scanned = 0;
+        for (int k = 0; k < candidates.length; k++) {
+            int index = -1;
+            long bound = Long.MIN_VALUE;
+            for (int i = 0; i < candidates.length; i++) {
+                if ((scanned & (1 << i)) == 0) {
+                    long candidateBound = board.getFoodUpperBound(x, y, candidates[i]);
+                    if (candidateBound > bound) {
+                        bound = candidateBound;
+                        index = i;
+                    }
                 }
             }
-            if (currentFoodValue > maxFood) {
+            scanned |= 1 << index;
+            if (bound < maxFood) {
+                break;
+            }
+            if (bound == maxFood && (bestDir == null || index > bestIndex)) {
+                continue;
+            }
+            int currentFoodValue = getVisibleFood(candidates[index], board);
+            if (currentFoodValue > maxFood || (currentFoodValue == maxFood && bestDir != null && index < bestIndex)) {
                 maxFood = currentFoodValue;
-                bestDir = dir;
+                bestDir = candidates[index];
+                bestIndex = index;
             }
         }
-        if (bestDir == null){
-            return Direction.N;
+        if (bestDir == null) {
+            return getDefaultDirection();
         } else {
             return bestDir;
         }
     }
-    @Override
-    public int travelDirection(Direction dir, Map<String, BoardEntity> boardData, int boardSize) {
-        int[] currentPosition = entityPosition.getCoordinates();
-        int x = currentPosition[0];
-        int y = currentPosition[1];
-        int spreadY = 0;
-        int spreadX = 0;
-        int getFood = 0;
-        boolean isAlive = true;
-        switch (dir) {
-            case W:
-                spreadY = -2;
-                break;
-            case S:
-                spreadX = 2;
-                break;
-            case E:
-                spreadY = 2;
-                break;
-            case N:
-                spreadX = -2;
-                break;
+    protected int getVisibleFood(Direction dir, Board board) {
+        int boardSize = board.getSize();
+        int newX = entityPosition.getX();
+        int newY = entityPosition.getY();
+        int spreadX = dir.getDeltaX() * getStep();
+        int spreadY = dir.getDeltaY() * getStep();
+        int currentFoodValue = 0;
+        while ((newX >= 1 && newX <= boardSize) && (newY >= 1 && newY <= boardSize)) {
+            newX += spreadX;
+            newY += spreadY;
+            BoardEntity entityAtNewPosition = board.getEntity(newX, newY);
+            if (entityAtNewPosition instanceof FoodPoint && ((FoodPoint) entityAtNewPosition).isCanEat()) {
+                currentFoodValue += ((FoodPoint) entityAtNewPosition).getValue();
+            }
         }
-        while (isAlive){
+        return currentFoodValue;
+    }
+    public int travelDirection(Direction dir, Board board) {
+        int boardSize = board.getSize();
+        int x = entityPosition.getX();
+        int y = entityPosition.getY();
+        int spreadX = dir.getDeltaX() * getStep();
+        int spreadY = dir.getDeltaY() * getStep();
+        int getFood = 0;
+        while (true) {
             x += spreadX;
             y += spreadY;
-            InsectColor grasshopperColor = color;
-            EntityPosition newPosition = new EntityPosition(x, y);
-            int[] newCoordinates = newPosition.getCoordinates();
-            String key = Arrays.toString(newCoordinates);
-            BoardEntity entityAtNewPosition = boardData.get(key);
+            BoardEntity entityAtNewPosition = board.getEntity(x, y);
             if (entityAtNewPosition instanceof FoodPoint && ((FoodPoint) entityAtNewPosition).isCanEat()) {
-                int foodValue = ((FoodPoint) entityAtNewPosition).getValue();
-                getFood += foodValue;
-                ((FoodPoint) entityAtNewPosition).setCanEat(false);
-            } else if (entityAtNewPosition instanceof Insect && color != grasshopperColor && getAlive() || x > boardSize || x < 1 || y > boardSize || y < 1){
-                isAlive = false;
+                getFood += ((FoodPoint) entityAtNewPosition).getValue();
+                board.consume((FoodPoint) entityAtNewPosition);
+            } else if (entityAtNewPosition instanceof Insect && isBlockedBy((Insect) entityAtNewPosition) || x > boardSize || x < 1 || y > boardSize || y < 1) {
                 setAlive(false);
                 break;
             }
         }
         return getFood;
     }
+
+    public boolean getAlive() {
+        return alive;
+    }
+
+    public void setAlive(boolean alive) {
+        this.alive = alive;
+    }
+}
+class Grasshopper extends Insect {
+    private static final Direction[] DIRECTIONS = {Direction.N, Direction.E, Direction.S, Direction.W};
+    public Grasshopper(EntityPosition entityPosition, InsectColor color) {
+        super(entityPosition, color, true);
+    }
+    @Override
+    protected Direction[] getCandidateDirections() {
+        return DIRECTIONS;
+    }
+    @Override
+    protected Direction getDefaultDirection() {
+        return Direction.N;
+    }
+    @Override
+    protected int getStep() {
+        return 2;
+    }
+    // Grasshoppers jump over other insects and only stop at the board edge.
+    @Override
+    protected boolean isBlockedBy(Insect insect) {
+        return false;
+    }
 }
 class Butterfly extends Insect implements OrthogonalMoving {
+    private static final Direction[] DIRECTIONS = {Direction.N, Direction.E, Direction.S, Direction.W};
     public Butterfly(EntityPosition entityPosition, InsectColor color) {
         super(entityPosition, color, true);
     }
     @Override
-    public Direction getBestDirection(Map<String, BoardEntity> boardData, int boardSize) {
-        int[] currentPosition = entityPosition.getCoordinates();
-        int x = currentPosition[0];
-        int y = currentPosition[1];
-        Direction bestDir = null;
-        int maxFood = 0;
-        for (Direction dir : new Direction[]{Direction.N, Direction.E, Direction.S, Direction.W}) {
-            int newX = x;
-            int newY = y;
-            int spreadX = 0;
-            int spreadY = 0;
-            switch (dir) {
-                case W:
-                    spreadY = -1;
-                    break;
-                case S:
-                    spreadX = 1;
-                    break;
-                case E:
-                    spreadY = 1;
-                    break;
-                case N:
-                    spreadX = -1;
-                    break;
-            }
-            int currentFoodValue = 0;
-            while ((newX >= 1 && newX <= boardSize) && (newY >= 1 && newY <= boardSize)) {
-                newX += spreadX;
-                newY += spreadY;
-                EntityPosition newPosition = new EntityPosition(newX, newY);
-                int[] newCoordinates = newPosition.getCoordinates();
-                String key = Arrays.toString(newCoordinates);
-                BoardEntity entityAtNewPosition = boardData.get(key);
-
-                if (entityAtNewPosition instanceof FoodPoint && ((FoodPoint) entityAtNewPosition).isCanEat()) {
-                    int foodValue = ((FoodPoint) entityAtNewPosition).getValue();
-                    currentFoodValue += foodValue;
-                }
-            }
-            if (currentFoodValue > maxFood) {
-                maxFood = currentFoodValue;
-                bestDir = dir;
-            }
-        }
-        if (bestDir == null){
-            return Direction.N;
-        } else {
-            return bestDir;
-        }
+    protected Direction[] getCandidateDirections() {
+        return DIRECTIONS;
     }
     @Override
-    public int travelDirection(Direction dir, Map<String, BoardEntity> boardData, int boardSize) {
-        int[] currentPosition = entityPosition.getCoordinates();
-        int x = currentPosition[0];
-        int y = currentPosition[1];
-        int spreadY = 0;
-        int spreadX = 0;
-        int getFood = 0;
-        boolean isAlive = true;
-        switch (dir) {
-            case W:
-                spreadY = -1;
-                break;
-            case S:
-                spreadX = 1;
-                break;
-            case E:
-                spreadY = 1;
-                break;
-            case N:
-                spreadX = -1;
-                break;
-        }
-        while (isAlive){
-            x += spreadX;
-            y += spreadY;
-            InsectColor grasshopperColor = color;
-            EntityPosition newPosition = new EntityPosition(x, y);
-            int[] newCoordinates = newPosition.getCoordinates();
-            String key = Arrays.toString(newCoordinates);
-            BoardEntity entityAtNewPosition = boardData.get(key);
-            if (entityAtNewPosition instanceof FoodPoint && ((FoodPoint) entityAtNewPosition).isCanEat()) {
-                int foodValue = ((FoodPoint) entityAtNewPosition).getValue();
-                getFood += foodValue;
-                ((FoodPoint) entityAtNewPosition).setCanEat(false);
-            } else if (entityAtNewPosition instanceof Insect && ((Insect) entityAtNewPosition).color != grasshopperColor && ((Insect) entityAtNewPosition).getAlive() || x > boardSize || x < 1 || y > boardSize || y < 1){
-                isAlive = false;
-                setAlive(false);
-                break;
-            }
-        }
-        return getFood;
+    protected Direction getDefaultDirection() {
+        return Direction.N;
     }
     @Override
-    public int getOrthogonalDirectionVisibleValue(Direction dir, EntityPosition entityPosition, Map<String, BoardEntity> boardData, int boardSize) {
-        return travelDirection(dir, boardData, boardSize);
+    public int getOrthogonalDirectionVisibleValue(Direction dir, EntityPosition entityPosition, Board board) {
+        return travelDirection(dir, board);
     }
     @Override
-    public int travelOrthogonally(Direction dir, EntityPosition entityPosition, InsectColor color, Map<String, BoardEntity> boardData, int boardSize) {
-        return travelDirection(dir, boardData, boardSize);
+    public int travelOrthogonally(Direction dir, EntityPosition entityPosition, InsectColor color, Board board) {
+        return travelDirection(dir, board);
     }
 }
 class Ant extends Insect implements OrthogonalMoving, DiagonalMoving{
+    private static final Direction[] DIRECTIONS = Direction.values();
     public Ant(EntityPosition entityPosition, InsectColor color) {
         super(entityPosition, color, true);
     }
     @Override
-    public Direction getBestDirection(Map<String, BoardEntity> boardData, int boardSize) {
-        int[] currentPosition = entityPosition.getCoordinates();
-        int x = currentPosition[0];
-        int y = currentPosition[1];
-        Direction bestDir = null;
-        int maxFood = 0;
-        for (Direction dir : Direction.values()) {
-            int newX = x;
-            int newY = y;
-            int spreadX = 0;
-            int spreadY = 0;
-            switch (dir) {
-                case W:
-                    spreadY = -1;
-                    break;
-                case S:
-                    spreadX = 1;
-                    break;
-                case E:
-                    spreadY = 1;
-                    break;
-                case N:
-                    spreadX = -1;
-                    break;
-                case SW:
-                    spreadY = -1;
-                    spreadX = 1;
-                    break;
-                case NW:
-                    spreadY = -1;
-                    spreadX = -1;
-                    break;
-                case NE:
-                    spreadX = -1;
-                    spreadY = 1;
-                    break;
-                case SE:
-                    spreadX = 1;
-                    spreadY = 1;
-                    break;
-            }
-            int currentFoodValue = 0;
-            while ((newX >= 1 && newX <= boardSize) && (newY >= 1 && newY <= boardSize)) {
-                newX += spreadX;
-                newY += spreadY;
-                EntityPosition newPosition = new EntityPosition(newX, newY);
-                int[] newCoordinates = newPosition.getCoordinates();
-                String key = Arrays.toString(newCoordinates);
-                BoardEntity entityAtNewPosition = boardData.get(key);
-
-                if (entityAtNewPosition instanceof FoodPoint && ((FoodPoint) entityAtNewPosition).isCanEat()) {
-                    int foodValue = ((FoodPoint) entityAtNewPosition).getValue();
-                    currentFoodValue += foodValue;
-                }
-            }
-            if (currentFoodValue > maxFood) {
-                maxFood = currentFoodValue;
-                bestDir = dir;
-            }
-        }
-        if (bestDir == null){
-            return Direction.N;
-        } else {
-            return bestDir;
-        }
+    protected Direction[] getCandidateDirections() {
+        return DIRECTIONS;
     }
     @Override
-    public int travelDirection(Direction dir, Map<String, BoardEntity> boardData, int boardSize) {
-        int[] currentPosition = entityPosition.getCoordinates();
-        int x = currentPosition[0];
-        int y = currentPosition[1];
-        int spreadY = 0;
-        int spreadX = 0;
-        int getFood = 0;
-        boolean isAlive = true;
-        switch (dir) {
-            case W:
-                spreadY = -1;
-                break;
-            case S:
-                spreadX = 1;
-                break;
-            case E:
-                spreadY = 1;
-                break;
-            case N:
-                spreadX = -1;
-                break;
-            case SW:
-                spreadY = -1;
-                spreadX = 1;
-                break;
-            case NW:
-                spreadY = -1;
-                spreadX = -1;
-                break;
-            case NE:
-                spreadX = -1;
-                spreadY = 1;
-                break;
-            case SE:
-                spreadX = 1;
-                spreadY = 1;
-                break;
-        }
-        while (isAlive){
-            x += spreadX;
-            y += spreadY;
-            InsectColor grasshopperColor = color;
-            EntityPosition newPosition = new EntityPosition(x, y);
-            int[] newCoordinates = newPosition.getCoordinates();
-            String key = Arrays.toString(newCoordinates);
-            BoardEntity entityAtNewPosition = boardData.get(key);
-            if (entityAtNewPosition instanceof FoodPoint && ((FoodPoint) entityAtNewPosition).isCanEat()) {
-                int foodValue = ((FoodPoint) entityAtNewPosition).getValue();
-                getFood += foodValue;
-                ((FoodPoint) entityAtNewPosition).setCanEat(false);
-            } else if (entityAtNewPosition instanceof Insect && ((Insect) entityAtNewPosition).color != grasshopperColor && ((Insect) entityAtNewPosition).getAlive() || x > boardSize || x < 1 || y > boardSize || y < 1){
-                isAlive = false;
-                setAlive(false);
-
-                break;
-            }
-        }
-        return getFood;
+    protected Direction getDefaultDirection() {
+        return Direction.N;
     }
     @Override
-    public int getOrthogonalDirectionVisibleValue(Direction dir, EntityPosition entityPosition, Map<String, BoardEntity> boardData, int boardSize) {
-        return travelDirection(dir, boardData, boardSize);
+    public int getOrthogonalDirectionVisibleValue(Direction dir, EntityPosition entityPosition, Board board) {
+        return travelDirection(dir, board);
     }
     @Override
-    public int travelOrthogonally(Direction dir, EntityPosition entityPosition, InsectColor color, Map<String, BoardEntity> boardData, int boardSize) {
-        return travelDirection(dir, boardData, boardSize);
+    public int travelOrthogonally(Direction dir, EntityPosition entityPosition, InsectColor color, Board board) {
+        return travelDirection(dir, board);
     }
     @Override
-    public int getDiagonalDirectionVisibleValue(Direction dir, EntityPosition entityPosition, Map<String, BoardEntity> boardData, int boardSize) {
-        return travelDirection(dir, boardData, boardSize);
+    public int getDiagonalDirectionVisibleValue(Direction dir, EntityPosition entityPosition, Board board) {
+        return travelDirection(dir, board);
     }
     @Override
-    public int travelDiagonally(Direction dir, EntityPosition entityPosition, InsectColor color, Map<String, BoardEntity> boardData, int boardSize) {
-        return travelDirection(dir, boardData, boardSize);
+    public int travelDiagonally(Direction dir, EntityPosition entityPosition, InsectColor color, Board board) {
+        return travelDirection(dir, board);
     }
 }
 class Spider extends Insect implements DiagonalMoving {
+    private static final Direction[] DIRECTIONS = {Direction.NE, Direction.SE, Direction.SW, Direction.NW};
     public Spider(EntityPosition entityPosition, InsectColor color) {
         super(entityPosition, color, true);
     }
     @Override
-    public Direction getBestDirection(Map<String, BoardEntity> boardData, int boardSize) {
-        int[] currentPosition = entityPosition.getCoordinates();
-        int x = currentPosition[0];
-        int y = currentPosition[1];
-        Direction bestDir = null;
-        int maxFood = 0;
-        for (Direction dir : new Direction[]{Direction.NE, Direction.SE, Direction.SW, Direction.NW}) {
-            int newX = x;
-            int newY = y;
-            int spreadX = 0;
-            int spreadY = 0;
-            switch (dir) {
-                case SW:
-                    spreadY = -1;
-                    spreadX = 1;
-                    break;
-                case NW:
-                    spreadX = -1;
-                    spreadY = -1;
-                    break;
-                case NE:
-                    spreadY = 1;
-                    spreadX = -1;
-                    break;
-                case SE:
-                    spreadX = 1;
-                    spreadY = 1;
-                    break;
-            }
-            int currentFoodValue = 0;
-            while ((newX >= 1 && newX <= boardSize) && (newY >= 1 && newY <= boardSize)) {
-                newX += spreadX;
-                newY += spreadY;
-                EntityPosition newPosition = new EntityPosition(newX, newY);
-                int[] newCoordinates = newPosition.getCoordinates();
-                String key = Arrays.toString(newCoordinates);
-                BoardEntity entityAtNewPosition = boardData.get(key);
-
-                if (entityAtNewPosition instanceof FoodPoint && ((FoodPoint) entityAtNewPosition).isCanEat()) {
-                    int foodValue = ((FoodPoint) entityAtNewPosition).getValue();
-                    currentFoodValue += foodValue;
-                }
-            }
-            if (currentFoodValue > maxFood) {
-                maxFood = currentFoodValue;
-                bestDir = dir;
-            }
-        }
-        if (bestDir == null){
-            return Direction.NE;
-        } else {
-            return bestDir;
-        }
+    protected Direction[] getCandidateDirections() {
+        return DIRECTIONS;
     }
     @Override
-    public int travelDirection(Direction dir, Map<String, BoardEntity> boardData, int boardSize) {
-        int[] currentPosition = entityPosition.getCoordinates();
-        int x = currentPosition[0];
-        int y = currentPosition[1];
-        int spreadY = 0;
-        int spreadX = 0;
-        int getFood = 0;
-        boolean isAlive = true;
-        switch (dir) {
-            case SW:
-                spreadY = -1;
-                spreadX = 1;
-                break;
-            case NW:
-                spreadX = -1;
-                spreadY = -1;
-                break;
-            case NE:
-                spreadY = 1;
-                spreadX = -1;
-                break;
-            case SE:
-                spreadX = 1;
-                spreadY = 1;
-                break;
-        }
-        while (isAlive){
-            x += spreadX;
-            y += spreadY;
-            InsectColor grasshopperColor = color;
-            EntityPosition newPosition = new EntityPosition(x, y);
-            int[] newCoordinates = newPosition.getCoordinates();
-            String key = Arrays.toString(newCoordinates);
-            BoardEntity entityAtNewPosition = boardData.get(key);
-            if (entityAtNewPosition instanceof FoodPoint && ((FoodPoint) entityAtNewPosition).isCanEat()) {
-                int foodValue = ((FoodPoint) entityAtNewPosition).getValue();
-                getFood += foodValue;
-                ((FoodPoint) entityAtNewPosition).setCanEat(false);
-            } else if (entityAtNewPosition instanceof Insect && ((Insect) entityAtNewPosition).color != grasshopperColor && ((Insect) entityAtNewPosition).getAlive() || x > boardSize || x < 1 || y > boardSize || y < 1){
-                isAlive = false;
-                setAlive(false);
-                break;
-            }
-        }
-        return getFood;
+    protected Direction getDefaultDirection() {
+        return Direction.NE;
     }
     @Override
-    public int getDiagonalDirectionVisibleValue(Direction dir, EntityPosition entityPosition, Map<String, BoardEntity> boardData, int boardSize) {
-        return travelDirection(dir, boardData, boardSize);
+    public int getDiagonalDirectionVisibleValue(Direction dir, EntityPosition entityPosition, Board board) {
+        return travelDirection(dir, board);
     }
     @Override
-    public int travelDiagonally(Direction dir, EntityPosition entityPosition, InsectColor color, Map<String, BoardEntity> boardData, int boardSize) {
-        return travelDirection(dir, boardData, boardSize);
+    public int travelDiagonally(Direction dir, EntityPosition entityPosition, InsectColor color, Board board) {
+        return travelDirection(dir, board);
     }
 }
 interface OrthogonalMoving {
-    int getOrthogonalDirectionVisibleValue(Direction dir, EntityPosition entityPosition, Map<String, BoardEntity> boardData, int boardSize);
-    int travelOrthogonally(Direction dir, EntityPosition entityPosition, InsectColor color, Map<String, BoardEntity> boardData, int boardSize);
+    int getOrthogonalDirectionVisibleValue(Direction dir, EntityPosition entityPosition, Board board);
+    int travelOrthogonally(Direction dir, EntityPosition entityPosition, InsectColor color, Board board);
 }
 interface DiagonalMoving {
-    int getDiagonalDirectionVisibleValue(Direction dir, EntityPosition entityPosition, Map<String, BoardEntity> boardData, int boardSize);
-    int travelDiagonally(Direction dir, EntityPosition entityPosition, InsectColor color, Map<String, BoardEntity> boardData, int boardSize);
+    int getDiagonalDirectionVisibleValue(Direction dir, EntityPosition entityPosition, Board board);
+    int travelDiagonally(Direction dir, EntityPosition entityPosition, InsectColor color, Board board);
 }
-class InvalidBoardSizeException extends Exception {
+class InvalidBoardSizeException extends ValidationException {
+    static final InvalidBoardSizeException INSTANCE = new InvalidBoardSizeException();
+    private InvalidBoardSizeException() {
+    }
     public String getMessage(){
         return "Invalid board size";
     }
 }
-class InvalidNumberOfInsectsException extends Exception {
+class InvalidNumberOfInsectsException extends ValidationException {
+    static final InvalidNumberOfInsectsException INSTANCE = new InvalidNumberOfInsectsException();
+    private InvalidNumberOfInsectsException() {
+    }
     public String getMessage(){
         return "Invalid number of insects";
     }
 }
-class InvalidNumberOfFoodPointsException extends Exception {
+class InvalidNumberOfFoodPointsException extends ValidationException {
+    static final InvalidNumberOfFoodPointsException INSTANCE = new InvalidNumberOfFoodPointsException();
+    private InvalidNumberOfFoodPointsException() {
+    }
     public String getMessage(){
         return "Invalid number of food points";
     }
 }
-class InvalidInsectColorException extends Exception {
+class InvalidInsectColorException extends ValidationException {
+    static final InvalidInsectColorException INSTANCE = new InvalidInsectColorException();
+    private InvalidInsectColorException() {
+    }
     public String getMessage(){
         return "Invalid insect color";
     }
 }
-class InvalidInsectTypeException extends Exception {
+class InvalidInsectTypeException extends ValidationException {
+    static final InvalidInsectTypeException INSTANCE = new InvalidInsectTypeException();
+    private InvalidInsectTypeException() {
+    }
     public String getMessage(){
         return "Invalid insect type";
     }
 }
-class InvalidEntityPositionException extends Exception {
+class InvalidEntityPositionException extends ValidationException {
+    static final InvalidEntityPositionException INSTANCE = new InvalidEntityPositionException();
+    private InvalidEntityPositionException() {
+    }
     public String getMessage(){
         return "Invalid entity position";
     }
 }
-class DuplicateInsectException extends Exception {
+class DuplicateInsectException extends ValidationException {
+    static final DuplicateInsectException INSTANCE = new DuplicateInsectException();
+    private DuplicateInsectException() {
+    }
     public String getMessage(){
         return "Duplicate insects";
     }
 }
-class TwoEntitiesOnSamePositionException extends Exception {
+class TwoEntitiesOnSamePositionException extends ValidationException {
+    static final TwoEntitiesOnSamePositionException INSTANCE = new TwoEntitiesOnSamePositionException();
+    private TwoEntitiesOnSamePositionException() {
+    }
     public String getMessage(){
         return "Two entities in the same position";
     }
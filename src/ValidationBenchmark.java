@@ -0,0 +1,132 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+
+public class ValidationBenchmark {
+    private static final String[] COLORS = {"Red", "Green", "Blue", "Yellow"};
+    private static final String[] TYPES = {"Grasshopper", "Butterfly", "Ant", "Spider"};
+    private static final int INVALID_KINDS = 9;
+
+    public static void main(String[] args) throws IOException {
+        double invalidRatio = args.length > 0 ? Double.parseDouble(args[0]) : 0.3;
+        int inputCount = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int warmupRounds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        Random random = new Random(42);
+        String[] inputs = new String[inputCount];
+        int invalidCount = 0;
+        for (int i = 0; i < inputCount; i++) {
+            if (random.nextDouble() < invalidRatio) {
+                inputs[i] = generateInput(random, invalidCount % INVALID_KINDS);
+                invalidCount++;
+            } else {
+                inputs[i] = generateInput(random, -1);
+            }
+        }
+
+        long checksum = 0;
+        for (int round = 0; round < warmupRounds; round++) {
+            checksum += runRound(inputs);
+        }
+        long bestNanos = Long.MAX_VALUE;
+        long totalNanos = 0;
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            checksum += runRound(inputs);
+            long elapsed = System.nanoTime() - start;
+            bestNanos = Math.min(bestNanos, elapsed);
+            totalNanos += elapsed;
+        }
+        System.out.println("inputs: " + inputCount + ", invalid: " + invalidCount + " (" + INVALID_KINDS + " error kinds)");
+        System.out.println("mean ns/input: " + totalNanos / rounds / inputCount);
+        System.out.println("best ns/input: " + bestNanos / inputCount);
+        System.out.println("checksum: " + checksum);
+    }
+
+    private static long runRound(String[] inputs) throws IOException {
+        long rejected = 0;
+        for (String input : inputs) {
+            try {
+                Main.loadBoard(new BufferedReader(new StringReader(input)));
+            } catch (NumberFormatException | ValidationException e) {
+                rejected += e.getMessage().length();
+            }
+        }
+        return rejected;
+    }
+
+    private static String generateInput(Random random, int invalidKind) {
+        int boardSize = 10 + random.nextInt(40);
+        int numInsects = 4 + random.nextInt(8);
+        int numFoodPoints = 10 + random.nextInt(40);
+        String[] insects = new String[numInsects];
+        String[] foodPoints = new String[numFoodPoints];
+        int[] cells = new int[numInsects + numFoodPoints];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = i * (boardSize * boardSize / cells.length);
+        }
+        int[] identities = new int[16];
+        for (int i = 0; i < identities.length; i++) {
+            identities[i] = i;
+        }
+        for (int i = 0; i < numInsects; i++) {
+            int j = i + random.nextInt(identities.length - i);
+            int identity = identities[j];
+            identities[j] = identities[i];
+            identities[i] = identity;
+            insects[i] = COLORS[identity / 4] + " " + TYPES[identity % 4] + " " + position(cells[i], boardSize);
+        }
+        for (int i = 0; i < numFoodPoints; i++) {
+            foodPoints[i] = (1 + random.nextInt(30)) + " " + position(cells[numInsects + i], boardSize);
+        }
+        String boardSizeLine = String.valueOf(boardSize);
+        String numInsectsLine = String.valueOf(numInsects);
+        String numFoodPointsLine = String.valueOf(numFoodPoints);
+        int last = numInsects - 1;
+        switch (invalidKind) {
+            case 0:
+                boardSizeLine = "1001";
+                break;
+            case 1:
+                numInsectsLine = "17";
+                break;
+            case 2:
+                numFoodPointsLine = "201";
+                break;
+            case 3:
+                insects[last] = "Purple" + insects[last].substring(insects[last].indexOf(' '));
+                break;
+            case 4:
+                insects[last] = insects[last].split(" ")[0] + " Bee " + position(cells[last], boardSize);
+                break;
+            case 5:
+                foodPoints[numFoodPoints - 1] = "5 " + (boardSize + 1) + " 1";
+                break;
+            case 6:
+                String[] first = insects[0].split(" ");
+                insects[last] = first[0] + " " + first[1] + " " + position(cells[last], boardSize);
+                break;
+            case 7:
+                foodPoints[numFoodPoints - 1] = "5 " + position(cells[0], boardSize);
+                break;
+            case 8:
+                foodPoints[numFoodPoints - 1] = "five " + position(cells[numInsects + numFoodPoints - 1], boardSize);
+                break;
+        }
+        StringBuilder input = new StringBuilder();
+        input.append(boardSizeLine).append('\n').append(numInsectsLine).append('\n').append(numFoodPointsLine).append('\n');
+        for (String insect : insects) {
+            input.append(insect).append('\n');
+        }
+        for (String foodPoint : foodPoints) {
+            input.append(foodPoint).append('\n');
+        }
+        return input.toString();
+    }
+
+    private static String position(int cell, int boardSize) {
+        return (cell / boardSize + 1) + " " + (cell % boardSize + 1);
+    }
+}
@@ -0,0 +1,7 @@
+public abstract class ValidationException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    protected ValidationException() {
+        super(null, null, false, false);
+    }
+}